@@ -84,7 +84,7 @@ public class AIController {
         return bestGame;
     }
 
-    private double evaluate(Game2048Model game2048Model){
+    double evaluate(Game2048Model game2048Model){
         Tile[] tiles =  game2048Model.getTiles();
 
         double monotonicityLeftRightScore = monotonicityLeftRight(tiles);
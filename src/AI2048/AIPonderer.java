@@ -0,0 +1,147 @@
+package AI2048;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Wraps an AIController so that the search for the next move starts as soon as the current move has been returned,
+ * rather than waiting for the caller to ask for it. Because a move and the tile it spawns are applied together by
+ * Game2048Model, the position the next search will be asked about is already known when makeMove returns, so that
+ * search can run in the background while the caller is painting or sleeping.
+ */
+public class AIPonderer {
+
+    private final AIController ai;
+    private final ExecutorService executor;
+
+    private Game2048Model ponderedPosition;
+    private Future<Game2048Model> pondering;
+
+    public AIPonderer() {
+        this(new AIController());
+    }
+
+    public AIPonderer(AIController ai) {
+        this.ai = ai;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "2048-ponder");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the AI's move for the given game. If the game is the position that was pondered after the previous
+     * move, the background result is used, otherwise the background search is cancelled and the move is searched
+     * for directly. Once the move is known the search for the following move is started in the background.
+     *
+     * @param myGame    The game to make a move on
+     * @return          The game after the best move has been made
+     */
+    public synchronized Game2048Model makeMove(Game2048Model myGame) {
+        Game2048Model bestGame = null;
+
+        if (pondering != null) {
+            if (samePosition(ponderedPosition, myGame)) {
+                bestGame = collect(pondering);
+            } else {
+                pondering.cancel(true);
+            }
+            pondering = null;
+            ponderedPosition = null;
+        }
+
+        if (bestGame == null) {
+            bestGame = ai.makeMove(myGame);
+        }
+
+        ponder(bestGame);
+
+        return bestGame;
+    }
+
+    /**
+     * Cancels any background search and stops the pondering thread
+     */
+    public synchronized void shutdown() {
+        if (pondering != null) {
+            pondering.cancel(true);
+            pondering = null;
+            ponderedPosition = null;
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts searching for the move that follows the given game in the background. Nothing is started if the game
+     * has finished, as the caller will not ask for another move.
+     *
+     * @param game  The game returned to the caller
+     */
+    private void ponder(Game2048Model game) {
+        if (game.getWin() || game.getLose() || executor.isShutdown()) {
+            return;
+        }
+
+        //An independent copy, with its own random number generator, is searched so that the caller and the background
+        //search cannot affect each other. A cancelled search can keep running for a while, so if it shared the
+        //caller's generator a seeded game would no longer be repeatable.
+        final Game2048Model position = game.independentCopy();
+        ponderedPosition = new Game2048Model(game);
+        pondering = executor.submit(new Callable<Game2048Model>() {
+            @Override
+            public Game2048Model call() {
+                return ai.makeMove(position);
+            }
+        });
+    }
+
+    /**
+     * Waits for a background search to finish
+     *
+     * @param future    The background search
+     * @return          The result of the search, or null if it did not complete
+     */
+    private static Game2048Model collect(Future<Game2048Model> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            //Falls back to searching directly
+        } catch (CancellationException e) {
+            //Falls back to searching directly
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether two games are in the same position
+     *
+     * @param game1 First game
+     * @param game2 Second game
+     * @return      Boolean value, true if the score and every tile value match
+     */
+    private static boolean samePosition(Game2048Model game1, Game2048Model game2) {
+        if (game1.getScore() != game2.getScore() || game1.getWin() != game2.getWin()) {
+            return false;
+        }
+
+        Tile[] tiles1 = game1.getTiles();
+        Tile[] tiles2 = game2.getTiles();
+        for (int i = 0; i < tiles1.length; i++) {
+            if (tiles1[i].value != tiles2[i].value) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
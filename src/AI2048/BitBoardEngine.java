@@ -0,0 +1,231 @@
+package AI2048;
+
+/**
+ * Engine that stores a board in a single long, using four bits per tile to hold the power of two of its value (0 for
+ * an empty space). Tile i of Game2048Model.getTiles is held in bits 4i to 4i + 3, so each row of the board is 16 bits
+ * long. The result of moving any row left or right, and the parts of the evaluation that depend on a single row, are
+ * looked up in tables built when the class is loaded. Columns are handled by transposing the board so that they
+ * become rows.
+ *
+ * Four bits can hold tiles up to 32768, so boards containing a pair of 32768 tiles cannot be moved.
+ */
+public class BitBoardEngine implements BoardEngine<BitBoardEngine.BitBoard> {
+
+    private static final int ROWS = 1 << 16;
+    private static final int MAX_EXPONENT = 15;
+    private static final int WIN_EXPONENT = 11;
+
+    private static final char[] LEFT = new char[ROWS];
+    private static final char[] RIGHT = new char[ROWS];
+    private static final int[] LEFT_SCORE = new int[ROWS];
+    private static final int[] RIGHT_SCORE = new int[ROWS];
+    private static final boolean[] LEFT_WIN = new boolean[ROWS];
+    private static final boolean[] RIGHT_WIN = new boolean[ROWS];
+    private static final byte[] EMPTY = new byte[ROWS];
+    private static final byte[] PAIRS = new byte[ROWS];
+
+    static {
+        for (int row = 0; row < ROWS; row++) {
+            int[] line = new int[4];
+            for (int x = 0; x < 4; x++) {
+                line[x] = (row >>> (4 * x)) & 0xF;
+                if (line[x] == 0) {
+                    EMPTY[row]++;
+                }
+                if (x > 0 && line[x] == line[x - 1]) {
+                    PAIRS[row]++;
+                }
+            }
+
+            int[] merged = new int[4];
+            int score = 0;
+            boolean win = false;
+            boolean overflow = false;
+
+            //Same as Game2048Model.moveLine followed by mergeLine, so each tile is merged at most once
+            int n = 0;
+            for (int x = 0; x < 4; x++) {
+                if (line[x] != 0) {
+                    merged[n++] = line[x];
+                }
+            }
+            int out = 0;
+            for (int i = 0; i < n; i++) {
+                int exponent = merged[i];
+                if (i + 1 < n && merged[i] == merged[i + 1]) {
+                    exponent++;
+                    overflow |= exponent > MAX_EXPONENT;
+                    score += 1 << exponent;
+                    win |= exponent == WIN_EXPONENT;
+                    i++;
+                }
+                merged[out++] = exponent;
+            }
+            while (out < 4) {
+                merged[out++] = 0;
+            }
+
+            if (overflow) {
+                //Marks the row so that move can refuse it rather than return a wrong board
+                LEFT_SCORE[row] = -1;
+            } else {
+                int result = 0;
+                for (int x = 0; x < 4; x++) {
+                    result |= merged[x] << (4 * x);
+                }
+                LEFT[row] = (char) result;
+                LEFT_SCORE[row] = score;
+                LEFT_WIN[row] = win;
+            }
+        }
+
+        //Moving a row right is the same as reversing it, moving it left and reversing it again
+        for (int row = 0; row < ROWS; row++) {
+            int reversed = reverse(row);
+            RIGHT[row] = (char) reverse(LEFT[reversed]);
+            RIGHT_SCORE[row] = LEFT_SCORE[reversed];
+            RIGHT_WIN[row] = LEFT_WIN[reversed];
+        }
+    }
+
+    /**
+     * A board, its score and whether the game has been won
+     */
+    public static final class BitBoard {
+        final long cells;
+        final int score;
+        final boolean win;
+
+        BitBoard(long cells, int score, boolean win) {
+            this.cells = cells;
+            this.score = score;
+            this.win = win;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "bitboard";
+    }
+
+    @Override
+    public BitBoard load(int[] values, int score) {
+        long cells = 0;
+        for (int i = 0; i < 16; i++) {
+            int value = values[i];
+            if (value == 0) {
+                continue;
+            }
+            int exponent = Integer.numberOfTrailingZeros(value);
+            if (Integer.bitCount(value) != 1 || exponent == 0 || exponent > MAX_EXPONENT) {
+                throw new IllegalArgumentException("Tile value " + value + " cannot be stored in a bit board");
+            }
+            cells |= (long) exponent << (4 * i);
+        }
+        return new BitBoard(cells, score, false);
+    }
+
+    @Override
+    public BitBoard move(BitBoard board, int direction) {
+        if (direction < 0 || direction > 3) {
+            throw new IllegalArgumentException("Unknown direction: " + direction);
+        }
+
+        //Up and down move the rows of the transposed board. Left and up move rows left, right and down move them right
+        long cells = direction < 2 ? board.cells : transpose(board.cells);
+        boolean towardsStart = direction == 0 || direction == 2;
+        char[] table = towardsStart ? LEFT : RIGHT;
+        int[] scores = towardsStart ? LEFT_SCORE : RIGHT_SCORE;
+        boolean[] wins = towardsStart ? LEFT_WIN : RIGHT_WIN;
+
+        long result = 0;
+        int score = board.score;
+        boolean win = board.win;
+        for (int y = 0; y < 4; y++) {
+            int row = (int) (cells >>> (16 * y)) & 0xFFFF;
+            if (scores[row] < 0) {
+                throw new IllegalStateException("Merging two 32768 tiles is not supported by " + getName());
+            }
+            result |= (long) table[row] << (16 * y);
+            score += scores[row];
+            win |= wins[row];
+        }
+
+        if (result == cells) {
+            return null;
+        }
+        return new BitBoard(direction < 2 ? result : transpose(result), score, win);
+    }
+
+    @Override
+    public int[] getValues(BitBoard board) {
+        int[] values = new int[16];
+        for (int i = 0; i < 16; i++) {
+            int exponent = (int) (board.cells >>> (4 * i)) & 0xF;
+            values[i] = exponent == 0 ? 0 : 1 << exponent;
+        }
+        return values;
+    }
+
+    @Override
+    public int getScore(BitBoard board) {
+        return board.score;
+    }
+
+    @Override
+    public boolean getWin(BitBoard board) {
+        return board.win;
+    }
+
+    /**
+     * Same result as AIController.evaluate. The monotonicity scores are left out, as the AI calculates them but does
+     * not use them. Each pair of equal neighbours is counted twice, as AIController.merges counts it once from each
+     * tile.
+     */
+    @Override
+    public double evaluate(BitBoard board) {
+        long transposed = transpose(board.cells);
+        int empty = 0;
+        int pairs = 0;
+        for (int y = 0; y < 4; y++) {
+            int row = (int) (board.cells >>> (16 * y)) & 0xFFFF;
+            int column = (int) (transposed >>> (16 * y)) & 0xFFFF;
+            empty += EMPTY[row];
+            pairs += PAIRS[row] + PAIRS[column];
+        }
+
+        double mergeScore = 2.0 * pairs;
+        double countEval = empty / 14.0;
+
+        double score = (double) board.score;
+        double scoreEval;
+        if (score != 0.0) {
+            scoreEval = 1.0 - (1.0 / score);
+        } else {
+            scoreEval = 0.0;
+        }
+
+        return (4.0 * scoreEval) + countEval + mergeScore;
+    }
+
+    /**
+     * Swaps rows and columns, so that tile (x, y) moves to (y, x)
+     */
+    private static long transpose(long cells) {
+        long a1 = cells & 0xF0F00F0FF0F00F0FL;
+        long a2 = cells & 0x0000F0F00000F0F0L;
+        long a3 = cells & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /**
+     * Reverses the order of the four tiles in a row
+     */
+    private static int reverse(int row) {
+        return ((row & 0xF) << 12) | ((row & 0xF0) << 4) | ((row >>> 4) & 0xF0) | ((row >>> 12) & 0xF);
+    }
+}
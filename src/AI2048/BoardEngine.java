@@ -0,0 +1,47 @@
+package AI2048;
+
+/**
+ * An implementation of the rules of the game and of the AI's evaluation function, used by EngineFuzzer to check
+ * that other implementations behave exactly like Game2048Model and AIController. Each engine can store boards in
+ * whatever form suits it best.
+ *
+ * Directions are numbered in the same order as AIController: 0 left, 1 right, 2 up and 3 down.
+ *
+ * @param <B> The type used by the engine to store a board
+ */
+public interface BoardEngine<B> {
+
+    String getName();
+
+    /**
+     * Creates a board from tile values and a score
+     *
+     * @param values    Tile values, in the same order as Game2048Model.getTiles
+     * @param score     Score of the game
+     * @return          The board
+     */
+    B load(int[] values, int score);
+
+    /**
+     * Makes a move without generating a new tile. The given board is not changed.
+     *
+     * @param board     The board to move
+     * @param direction Direction to move in
+     * @return          The board after the move, or null if no tiles were moved
+     */
+    B move(B board, int direction);
+
+    int[] getValues(B board);
+
+    int getScore(B board);
+
+    boolean getWin(B board);
+
+    /**
+     * Evaluates a board in the same way as the AI
+     *
+     * @param board The board to evaluate
+     * @return      The evaluation of the board
+     */
+    double evaluate(B board);
+}
@@ -0,0 +1,420 @@
+package AI2048;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks that a candidate engine plays exactly like a reference engine, and compares how fast they are. Every board
+ * is moved in all four directions by both engines, and the resulting tiles, score, win flag and AI evaluation must
+ * match exactly. The boards come from positions recorded while the AI plays seeded games, from an optional file, and
+ * from a large number of randomly generated boards.
+ *
+ * The boards are checked in parallel. If the engines differ, the first board that differs is reduced to the smallest
+ * board that still shows the difference and printed along with what each engine returned.
+ *
+ * @param <A> Board type of the reference engine
+ * @param <B> Board type of the candidate engine
+ */
+public class EngineFuzzer<A, B> {
+
+    private static final String[] DIRECTIONS = {"left", "right", "up", "down"};
+    private static final int CHUNK_SIZE = 4096;
+    //Random boards never contain two 32768 tiles, so that every merge fits within a bit board
+    private static final int MAX_RANDOM_EXPONENT = 14;
+
+    private final BoardEngine<A> reference;
+    private final BoardEngine<B> candidate;
+    private final List<int[]> recorded;
+    private final long randomBoards;
+    private final long randomSeed;
+
+    /**
+     * @param reference     The engine whose behaviour is correct
+     * @param candidate     The engine being checked
+     * @param recorded      Recorded boards, each holding 16 tile values followed by the score
+     * @param randomBoards  Number of random boards to check after the recorded ones
+     * @param randomSeed    Seed of the first random board
+     */
+    public EngineFuzzer(BoardEngine<A> reference, BoardEngine<B> candidate, List<int[]> recorded,
+                        long randomBoards, long randomSeed) {
+        this.reference = reference;
+        this.candidate = candidate;
+        this.recorded = recorded;
+        this.randomBoards = randomBoards;
+        this.randomSeed = randomSeed;
+    }
+
+    public long getBoardCount() {
+        return recorded.size() + randomBoards;
+    }
+
+    /**
+     * Gets a board to check. The recorded boards come first, followed by the random boards, which are generated from
+     * their index so they do not need to be kept in memory.
+     *
+     * @param index Index of the board
+     * @return      16 tile values followed by the score
+     */
+    public int[] board(long index) {
+        if (index < recorded.size()) {
+            return recorded.get((int) index);
+        }
+        return randomBoard(randomSeed + index - recorded.size());
+    }
+
+    /**
+     * Generates a random board. The proportion of empty spaces varies from board to board so that both empty and full
+     * boards are covered, and a score of 0 is included as it is treated differently by the evaluation.
+     *
+     * @param seed  Seed for the board
+     * @return      16 tile values followed by the score
+     */
+    static int[] randomBoard(long seed) {
+        Random random = new Random(seed);
+        int[] board = new int[17];
+        int emptyChance = random.nextInt(11);
+        int maxExponent = random.nextInt(4) == 0 ? MAX_RANDOM_EXPONENT : 11;
+        for (int i = 0; i < 16; i++) {
+            if (random.nextInt(10) >= emptyChance) {
+                board[i] = 1 << (1 + random.nextInt(maxExponent));
+            }
+        }
+        board[16] = random.nextInt(8) == 0 ? 0 : random.nextInt(1 << 20);
+        return board;
+    }
+
+    /**
+     * Plays seeded games with the AI and records the board before every move
+     *
+     * @param games     Number of games to play
+     * @param firstSeed Seed of the first game
+     * @return          The recorded boards
+     */
+    static List<int[]> recordGames(int games, long firstSeed) {
+        List<int[]> boards = new ArrayList<int[]>();
+        AIController ai = new AIController();
+        for (long seed = firstSeed; seed < firstSeed + games; seed++) {
+            Game2048Model game = new Game2048Model(seed);
+            while (!game.getWin() && !game.getLose()) {
+                int[] board = new int[17];
+                Tile[] tiles = game.getTiles();
+                for (int i = 0; i < 16; i++) {
+                    board[i] = tiles[i].value;
+                }
+                board[16] = game.getScore();
+                boards.add(board);
+                game = ai.makeMove(game);
+            }
+        }
+        return boards;
+    }
+
+    /**
+     * Reads boards from a file with one board per line, made up of 16 tile values and an optional score separated by
+     * spaces. Blank lines and lines starting with # are ignored.
+     *
+     * @param file  The file to read
+     * @return      The boards in the file
+     * @throws IOException  If the file cannot be read or a line is malformed
+     */
+    static List<int[]> readBoards(File file) throws IOException {
+        List<int[]> boards = new ArrayList<int[]>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length != 16 && fields.length != 17) {
+                    throw new IOException("Expected 16 tile values and an optional score: " + line);
+                }
+                int[] board = new int[17];
+                for (int i = 0; i < fields.length; i++) {
+                    board[i] = Integer.parseInt(fields[i]);
+                }
+                boards.add(board);
+            }
+        } finally {
+            in.close();
+        }
+        return boards;
+    }
+
+    /**
+     * Checks every board in parallel
+     *
+     * @param threads   Number of threads to use
+     * @return          Index of the first board on which the engines differ, or -1 if they always agree
+     * @throws IllegalStateException    If a thread failed before checking all of its boards
+     */
+    public long findFirstDivergence(int threads) throws InterruptedException {
+        final long total = getBoardCount();
+        final AtomicLong nextChunk = new AtomicLong();
+        final AtomicLong firstDivergence = new AtomicLong(Long.MAX_VALUE);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        long start;
+                        //Chunks after a known divergence are skipped, as only the first one is reported
+                        while ((start = nextChunk.getAndAdd(CHUNK_SIZE)) < Math.min(total, firstDivergence.get())
+                                && failure.get() == null) {
+                            long end = Math.min(start + CHUNK_SIZE, total);
+                            for (long index = start; index < end; index++) {
+                                if (describeDivergence(board(index)) != null) {
+                                    long current;
+                                    while (index < (current = firstDivergence.get())
+                                            && !firstDivergence.compareAndSet(current, index)) {
+                                        //Retries until the lowest index is stored
+                                    }
+                                    break;
+                                }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        //Boards this thread did not check must not be reported as agreeing
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("Checking stopped before every board was compared", failure.get());
+        }
+        long first = firstDivergence.get();
+        return first == Long.MAX_VALUE ? -1 : first;
+    }
+
+    /**
+     * Compares both engines on a board, first evaluating the board itself and then moving it in each direction. An
+     * exception thrown by either engine at any step counts as a difference.
+     *
+     * @param board 16 tile values followed by the score
+     * @return      Description of the first difference, or null if the engines agree
+     */
+    public String describeDivergence(int[] board) {
+        String step = "load";
+        try {
+            int[] values = Arrays.copyOf(board, 16);
+            A a = reference.load(values, board[16]);
+            B b = candidate.load(values, board[16]);
+
+            step = "board";
+            String difference = compare(step, a, b);
+            for (int direction = 0; direction < 4 && difference == null; direction++) {
+                step = DIRECTIONS[direction];
+                A movedA = reference.move(a, direction);
+                B movedB = candidate.move(b, direction);
+
+                if (movedA == null || movedB == null) {
+                    if (movedA != movedB) {
+                        difference = step + ": " + reference.getName()
+                                + (movedA == null ? " did not move, " : " moved, ") + candidate.getName()
+                                + (movedB == null ? " did not move" : " moved");
+                    }
+                } else {
+                    difference = compare(step, movedA, movedB);
+                }
+            }
+            return difference;
+        } catch (RuntimeException e) {
+            return step + ": threw " + e;
+        }
+    }
+
+    private String compare(String label, A a, B b) {
+        int[] valuesA = reference.getValues(a);
+        int[] valuesB = candidate.getValues(b);
+        if (!Arrays.equals(valuesA, valuesB)) {
+            return label + ": tiles " + reference.getName() + "=" + Arrays.toString(valuesA) + " "
+                    + candidate.getName() + "=" + Arrays.toString(valuesB);
+        }
+        if (reference.getScore(a) != candidate.getScore(b)) {
+            return label + ": score " + reference.getName() + "=" + reference.getScore(a) + " "
+                    + candidate.getName() + "=" + candidate.getScore(b);
+        }
+        if (reference.getWin(a) != candidate.getWin(b)) {
+            return label + ": win " + reference.getName() + "=" + reference.getWin(a) + " "
+                    + candidate.getName() + "=" + candidate.getWin(b);
+        }
+        double evaluationA = reference.evaluate(a);
+        double evaluationB = candidate.evaluate(b);
+        if (Double.compare(evaluationA, evaluationB) != 0) {
+            return label + ": evaluation " + reference.getName() + "=" + evaluationA + " "
+                    + candidate.getName() + "=" + evaluationB;
+        }
+        return null;
+    }
+
+    /**
+     * Reduces a board on which the engines differ, by repeatedly removing tiles, halving tiles and reducing the score
+     * for as long as the engines still differ
+     *
+     * @param board 16 tile values followed by the score
+     * @return      The smallest board found on which the engines differ
+     */
+    public int[] shrink(int[] board) {
+        int[] smallest = board.clone();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < 17; i++) {
+                int value = smallest[i];
+                if (value == 0) {
+                    continue;
+                }
+                //Tiles are removed or halved, the score is set to 0 or halved
+                int[] options = i < 16 ? new int[]{0, value > 2 ? value / 2 : 0} : new int[]{0, value / 2};
+                for (int option : options) {
+                    if (option == value) {
+                        continue;
+                    }
+                    smallest[i] = option;
+                    if (describeDivergence(smallest) != null) {
+                        changed = true;
+                        break;
+                    }
+                    smallest[i] = value;
+                }
+            }
+        }
+        return smallest;
+    }
+
+    /**
+     * Times how long an engine takes to move each board in every direction and evaluate the result
+     *
+     * @param engine    The engine to time
+     * @param boards    Boards to use, each holding 16 tile values followed by the score
+     * @param rounds    Number of timed passes over the boards, after one pass to warm up
+     * @return          Boards processed per second
+     */
+    static <T> double measure(BoardEngine<T> engine, List<int[]> boards, int rounds) {
+        List<T> loaded = new ArrayList<T>(boards.size());
+        for (int[] board : boards) {
+            loaded.add(engine.load(Arrays.copyOf(board, 16), board[16]));
+        }
+
+        double sink = 0;
+        long elapsed = 0;
+        for (int round = 0; round <= rounds; round++) {
+            long start = System.nanoTime();
+            for (T board : loaded) {
+                for (int direction = 0; direction < 4; direction++) {
+                    T moved = engine.move(board, direction);
+                    if (moved != null) {
+                        sink += engine.evaluate(moved);
+                    }
+                }
+            }
+            if (round > 0) {
+                elapsed += System.nanoTime() - start;
+            }
+        }
+
+        //Stops the work being optimised away
+        if (sink == Double.MIN_VALUE) {
+            System.out.println(sink);
+        }
+        return (double) loaded.size() * rounds * TimeUnit.SECONDS.toNanos(1) / Math.max(elapsed, 1);
+    }
+
+    private static String format(int[] board) {
+        StringBuilder sb = new StringBuilder();
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                sb.append(String.format("%6d", board[x + y * 4]));
+            }
+            sb.append('\n');
+        }
+        sb.append("score ").append(board[16]);
+        return sb.toString();
+    }
+
+    private static String formatLine(int[] board) {
+        StringBuilder sb = new StringBuilder();
+        for (int value : board) {
+            sb.append(value).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long randomBoards = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        File boardFile = args.length > 3 ? new File(args[3]) : null;
+
+        List<int[]> recorded = recordGames(games, 0);
+        if (boardFile != null) {
+            recorded.addAll(readBoards(boardFile));
+        }
+
+        EngineFuzzer<Game2048Model, BitBoardEngine.BitBoard> fuzzer = new EngineFuzzer<Game2048Model, BitBoardEngine.BitBoard>(
+                new LegacyBoardEngine(), new BitBoardEngine(), recorded, randomBoards, 0);
+
+        System.out.println("Checking " + fuzzer.getBoardCount() + " boards (" + recorded.size() + " recorded, "
+                + randomBoards + " random) on " + threads + " threads");
+        long start = System.nanoTime();
+        long divergence;
+        try {
+            divergence = fuzzer.findFirstDivergence(threads);
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage() + ": " + e.getCause());
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+        System.out.println("Checked in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+        if (divergence >= 0) {
+            int[] board = fuzzer.board(divergence);
+            int[] smallest = fuzzer.shrink(board);
+            System.out.println("Engines differ on board " + divergence + ":");
+            System.out.println(format(board));
+            System.out.println(fuzzer.describeDivergence(board));
+            System.out.println("Smallest board that differs:");
+            System.out.println(format(smallest));
+            System.out.println(fuzzer.describeDivergence(smallest));
+            System.out.println("As a board file line: " + formatLine(smallest));
+            System.exit(1);
+        }
+        System.out.println("No differences found");
+
+        List<int[]> benchmark = new ArrayList<int[]>();
+        for (long index = 0; index < Math.min(fuzzer.getBoardCount(), 200000); index++) {
+            benchmark.add(fuzzer.board(index));
+        }
+        BoardEngine<Game2048Model> reference = new LegacyBoardEngine();
+        BoardEngine<BitBoardEngine.BitBoard> candidate = new BitBoardEngine();
+        double referenceSpeed = measure(reference, benchmark, 3);
+        double candidateSpeed = measure(candidate, benchmark, 3);
+
+        System.out.println(String.format("%-10s %15s %10s", "engine", "boards/s", "speed up"));
+        System.out.println(String.format("%-10s %15.0f %10.2f", reference.getName(), referenceSpeed, 1.0));
+        System.out.println(String.format("%-10s %15.0f %10.2f", candidate.getName(), candidateSpeed,
+                candidateSpeed / referenceSpeed));
+    }
+}
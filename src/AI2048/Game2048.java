@@ -15,7 +15,7 @@ public class Game2048 extends JPanel {
     private static final int TILES_MARGIN = 16;
 
     private Game2048Model myGame;
-    private AIController ai;
+    private AIPonderer ai;
 
     public Game2048() {
         setFocusable(true);
@@ -25,8 +25,9 @@ public class Game2048 extends JPanel {
     }
 
     public void runGame(){
+        //The next move is searched for in the background while this thread sleeps
+        ai = new AIPonderer();
         while (!myGame.getWin() && !myGame.getLose()) {
-            ai = new AIController();
             myGame = ai.makeMove(myGame);
 
 
@@ -42,6 +43,7 @@ public class Game2048 extends JPanel {
 
             repaint();
         }
+        ai.shutdown();
     }
 
     @Override
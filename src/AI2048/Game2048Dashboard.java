@@ -0,0 +1,368 @@
+package AI2048;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Displays a grid of games that are all being played by the AI at the same time. Each game is played at full speed
+ * on a pool of worker threads. A worker makes MOVES_PER_TASK moves before publishing the state of its board, so the
+ * board shown can be up to that many moves behind the game. The boards are redrawn on the event dispatch thread at a
+ * fixed frame rate, so the games are never slowed down to the speed of the display.
+ *
+ * Each board and the statistics bar is a separate component. Swing joins the dirty regions of a single component into
+ * one rectangle, so keeping them apart means a frame only repaints the boards that changed, and within each board
+ * only the area covering its changed tiles.
+ */
+public class Game2048Dashboard extends JPanel {
+    private static final Color BG_COLOR = new Color(0xbbada0);
+    private static final Color PANEL_COLOR = new Color(0xfaf8ef);
+    private static final Color TEXT_COLOR = new Color(0x776e65);
+    private static final String FONT_NAME = "Arial";
+    private static final int TILE_SIZE = 20;
+    private static final int TILES_MARGIN = 3;
+    private static final int BOARD_SIZE = 4 * TILE_SIZE + 5 * TILES_MARGIN;
+    private static final int SCORE_HEIGHT = 14;
+    private static final int BOARD_GAP = 8;
+    private static final int STATS_HEIGHT = 28;
+    private static final int FRAME_MILLIS = 33;
+    private static final int MOVES_PER_TASK = 16;
+
+    private static final Font TILE_FONT = new Font(FONT_NAME, Font.BOLD, 9);
+    private static final Font SCORE_FONT = new Font(FONT_NAME, Font.PLAIN, 10);
+    private static final Font STATS_FONT = new Font(FONT_NAME, Font.BOLD, 13);
+
+    //Games played by the simulations, and the latest state each simulation has published
+    private final Game2048Model[] games;
+    private final AtomicReferenceArray<Snapshot> published;
+
+    private final BoardView[] boards;
+    private final StatsBar stats = new StatsBar();
+
+    private final AtomicInteger gamesPlayed = new AtomicInteger();
+    private final AtomicInteger gamesWon = new AtomicInteger();
+    private final AtomicInteger bestScore = new AtomicInteger();
+    private final AtomicLong movesMade = new AtomicLong();
+
+    private ExecutorService executor;
+    private Timer frameTimer;
+    private volatile boolean running;
+
+    private long lastMoves;
+    private long lastFrameTime;
+    private long movesPerSecond;
+
+    public Game2048Dashboard(int games, int columns) {
+        super(new BorderLayout());
+        if (games <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("The number of games and columns must be positive");
+        }
+
+        this.games = new Game2048Model[games];
+        this.published = new AtomicReferenceArray<Snapshot>(games);
+        this.boards = new BoardView[games];
+
+        int rows = (games + columns - 1) / columns;
+        JPanel grid = new JPanel(new GridLayout(rows, columns, BOARD_GAP, BOARD_GAP));
+        grid.setBackground(PANEL_COLOR);
+        grid.setBorder(new EmptyBorder(BOARD_GAP, BOARD_GAP, BOARD_GAP, BOARD_GAP));
+
+        for (int i = 0; i < games; i++) {
+            this.games[i] = new Game2048Model();
+            Snapshot snapshot = new Snapshot(this.games[i]);
+            published.set(i, snapshot);
+            boards[i] = new BoardView(snapshot);
+            grid.add(boards[i]);
+        }
+
+        add(stats, BorderLayout.NORTH);
+        add(grid, BorderLayout.CENTER);
+    }
+
+    /**
+     * Starts playing every game on a pool with one thread per processor, and starts the timer that redraws the
+     * dashboard
+     */
+    public void start() {
+        running = true;
+        lastFrameTime = System.nanoTime();
+
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "2048-dashboard-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < games.length; i++) {
+            executor.execute(new Simulation(i, games[i]));
+        }
+
+        frameTimer = new Timer(FRAME_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+        frameTimer.setCoalesce(true);
+        frameTimer.start();
+    }
+
+    /**
+     * Stops every game and the redraw timer
+     */
+    public void stop() {
+        running = false;
+        if (frameTimer != null) {
+            frameTimer.stop();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Called once per frame on the event dispatch thread. Passes the latest state of each game to its board, which
+     * marks only its changed tiles as needing to be repainted, and updates the statistics bar if its text has changed.
+     */
+    private void refresh() {
+        for (int i = 0; i < boards.length; i++) {
+            boards[i].update(published.get(i));
+        }
+
+        long now = System.nanoTime();
+        long moves = movesMade.get();
+        if (now - lastFrameTime >= 1000000000L) {
+            movesPerSecond = (moves - lastMoves) * 1000000000L / (now - lastFrameTime);
+            lastMoves = moves;
+            lastFrameTime = now;
+        }
+
+        int played = gamesPlayed.get();
+        int won = gamesWon.get();
+        stats.setText("Games: " + played
+                + "   Won: " + won + (played > 0 ? " (" + (100 * won / played) + "%)" : "")
+                + "   Best score: " + bestScore.get()
+                + "   Moves/s: " + movesPerSecond);
+    }
+
+    private static int offsetColors(int arg) {
+        return arg * (TILES_MARGIN + TILE_SIZE) + TILES_MARGIN;
+    }
+
+    /**
+     * Updates the best score seen so far if the given score is higher
+     *
+     * @param score Final score of a game
+     */
+    private void recordScore(int score) {
+        int best = bestScore.get();
+        while (score > best && !bestScore.compareAndSet(best, score)) {
+            best = bestScore.get();
+        }
+    }
+
+    /**
+     * Immutable copy of the tile values and score of a game, published by a simulation for the dashboard to draw
+     */
+    private static final class Snapshot {
+        final int[] values = new int[16];
+        final int score;
+
+        Snapshot(Game2048Model game) {
+            Tile[] tiles = game.getTiles();
+            for (int i = 0; i < tiles.length; i++) {
+                values[i] = tiles[i].value;
+            }
+            score = game.getScore();
+        }
+    }
+
+    /**
+     * Draws one game. Only the tiles and score that differ from the previous frame are marked as dirty, and painting
+     * skips every tile outside the clip.
+     */
+    private static final class BoardView extends JComponent {
+        private Snapshot shown;
+
+        BoardView(Snapshot shown) {
+            this.shown = shown;
+            setOpaque(true);
+            setPreferredSize(new Dimension(BOARD_SIZE, BOARD_SIZE + SCORE_HEIGHT));
+        }
+
+        void update(Snapshot latest) {
+            if (latest == shown) {
+                return;
+            }
+            for (int t = 0; t < 16; t++) {
+                if (latest.values[t] != shown.values[t]) {
+                    repaint(offsetColors(t % 4), offsetColors(t / 4), TILE_SIZE, TILE_SIZE);
+                }
+            }
+            if (latest.score != shown.score) {
+                repaint(0, BOARD_SIZE, BOARD_SIZE, SCORE_HEIGHT);
+            }
+            shown = latest;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g2) {
+            Graphics2D g = (Graphics2D) g2;
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_NORMALIZE);
+
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+
+            Rectangle boardArea = clip.intersection(new Rectangle(0, 0, BOARD_SIZE, BOARD_SIZE));
+            if (!boardArea.isEmpty()) {
+                g.setColor(BG_COLOR);
+                g.fillRect(boardArea.x, boardArea.y, boardArea.width, boardArea.height);
+
+                for (int t = 0; t < 16; t++) {
+                    int xOffset = offsetColors(t % 4);
+                    int yOffset = offsetColors(t / 4);
+                    if (clip.intersects(xOffset, yOffset, TILE_SIZE, TILE_SIZE)) {
+                        drawTile(g, shown.values[t], xOffset, yOffset);
+                    }
+                }
+            }
+
+            if (clip.intersects(0, BOARD_SIZE, getWidth(), getHeight() - BOARD_SIZE)) {
+                g.setColor(PANEL_COLOR);
+                g.fillRect(0, BOARD_SIZE, getWidth(), getHeight() - BOARD_SIZE);
+                g.setColor(TEXT_COLOR);
+                g.setFont(SCORE_FONT);
+                g.drawString(String.valueOf(shown.score), 2, BOARD_SIZE + SCORE_HEIGHT - 3);
+            }
+        }
+
+        private void drawTile(Graphics2D g, int value, int xOffset, int yOffset) {
+            Tile tile = new Tile(value);
+            g.setColor(tile.getBackground());
+            g.fillRoundRect(xOffset, yOffset, TILE_SIZE, TILE_SIZE, 5, 5);
+
+            if (value != 0) {
+                String s = String.valueOf(value);
+                FontMetrics fm = getFontMetrics(TILE_FONT);
+                g.setColor(tile.getForeground());
+                g.setFont(TILE_FONT);
+                g.drawString(s, xOffset + (TILE_SIZE - fm.stringWidth(s)) / 2,
+                        yOffset + (TILE_SIZE + fm.getAscent() - fm.getDescent()) / 2);
+            }
+        }
+    }
+
+    /**
+     * Draws the statistics across the top of the dashboard, repainting only when the text changes
+     */
+    private static final class StatsBar extends JComponent {
+        private String text = "";
+
+        StatsBar() {
+            setOpaque(true);
+            setPreferredSize(new Dimension(0, STATS_HEIGHT));
+        }
+
+        void setText(String text) {
+            if (!text.equals(this.text)) {
+                this.text = text;
+                repaint();
+            }
+        }
+
+        @Override
+        protected void paintComponent(Graphics g2) {
+            Graphics2D g = (Graphics2D) g2;
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(PANEL_COLOR);
+            g.fillRect(0, 0, getWidth(), getHeight());
+            g.setColor(TEXT_COLOR);
+            g.setFont(STATS_FONT);
+            g.drawString(text, BOARD_GAP, STATS_HEIGHT - 9);
+        }
+    }
+
+    /**
+     * Plays one of the dashboard's games. A fixed number of moves are made each time the task runs, after which it
+     * resubmits itself so that every game shares the worker threads fairly. Finished games are added to the
+     * statistics and replaced with a new game.
+     */
+    private final class Simulation implements Runnable {
+        private final int index;
+        private final AIController ai = new AIController();
+        private Game2048Model game;
+
+        Simulation(int index, Game2048Model game) {
+            this.index = index;
+            this.game = game;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < MOVES_PER_TASK && running; i++) {
+                game = ai.makeMove(game);
+                movesMade.incrementAndGet();
+
+                if (game.getWin() || game.getLose()) {
+                    gamesPlayed.incrementAndGet();
+                    if (game.getWin()) {
+                        gamesWon.incrementAndGet();
+                    }
+                    recordScore(game.getScore());
+                    game = new Game2048Model();
+                }
+            }
+            published.set(index, new Snapshot(game));
+
+            if (running) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    //The dashboard has been stopped
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        final int games = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        if (games <= 0) {
+            System.err.println("Usage: Game2048Dashboard [number of games, at least 1]");
+            System.exit(1);
+        }
+        final int columns = (int) Math.ceil(Math.sqrt(games));
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                JFrame frame = new JFrame();
+                frame.setTitle("2048 Dashboard");
+                frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+
+                Game2048Dashboard dashboard = new Game2048Dashboard(games, columns);
+                frame.add(new JScrollPane(dashboard));
+                frame.pack();
+                frame.setLocationRelativeTo(null);
+                frame.setVisible(true);
+
+                dashboard.start();
+            }
+        });
+    }
+}
@@ -1,8 +1,14 @@
 package AI2048;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * @author Tom Longdon
@@ -11,19 +17,99 @@ import java.util.List;
 public class Game2048Model {
 
     private Tile[] tiles;
+    private final Random random;
+    private final boolean spawnTiles;
     boolean win = false;
     boolean lose = false;
     int score = 0;
 
     public Game2048Model(){
+        this(new Random());
+    }
+
+    /**
+     * Creates a game whose tiles are generated from the given seed, so that the same seed always produces the same
+     * game when the same moves are made
+     *
+     * @param seed  Seed for the random number generator
+     */
+    public Game2048Model(long seed){
+        this(new Random(seed));
+    }
+
+    private Game2048Model(Random random){
+        this.random = random;
+        this.spawnTiles = true;
         resetGame();
     }
 
+    /**
+     * Creates a game with the given tile values and score that does not generate a new tile after a move is made, so
+     * that the result of a single move can be compared with another implementation
+     *
+     * @param values    Tile values, in the same order as getTiles
+     * @param score     Score of the game
+     */
+    Game2048Model(int[] values, int score){
+        if (values.length != 4 * 4) {
+            throw new IllegalArgumentException("Expected 16 tile values but got " + values.length);
+        }
+        this.random = new Random();
+        this.spawnTiles = false;
+        this.score = score;
+        tiles = new Tile[4 * 4];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = new Tile(values[i]);
+        }
+    }
+
+    /**
+     * Copies a game. The copy shares the random number generator of the original, so a seeded game remains
+     * repeatable when moves are tried on copies of it. Because of this, a game and its copies must not be played on
+     * two threads at once; use independentCopy for a copy that is played on another thread.
+     */
     public Game2048Model(Game2048Model game2048Model){
+        this(game2048Model, game2048Model.random);
+    }
+
+    private Game2048Model(Game2048Model game2048Model, Random random){
         tiles = new Tile[4 * 4];
+        this.random = random;
+        spawnTiles = game2048Model.spawnTiles;
         copyGame(game2048Model);
     }
 
+    /**
+     * Copies a game along with its own copy of the random number generator, in the same state as the original's.
+     * The copy generates the same tiles the original would have, but playing one has no effect on the other, so they
+     * can be played on different threads and both remain repeatable.
+     *
+     * @return  The copy
+     */
+    Game2048Model independentCopy(){
+        return new Game2048Model(this, copyRandom(random));
+    }
+
+    /**
+     * Copies a random number generator, including its current state, by serializing it
+     *
+     * @param random    The generator to copy
+     * @return          A generator that produces the same sequence of numbers from this point
+     */
+    private static Random copyRandom(Random random) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(random);
+            out.close();
+            return (Random) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not copy random number generator", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Could not copy random number generator", e);
+        }
+    }
+
     public void copyGame(Game2048Model game2048Model){
         this.score = game2048Model.getScore();
         this.win = game2048Model.getWin();
@@ -59,9 +145,9 @@ public class Game2048Model {
     private void addTile() {
         List<Tile> list = availableSpace();
         if (!availableSpace().isEmpty()) {
-            int index = (int) (Math.random() * list.size()) % list.size();
+            int index = (int) (random.nextDouble() * list.size()) % list.size();
             Tile emptyTile = list.get(index);
-            emptyTile.value = Math.random() < 0.9 ? 2 : 4;
+            emptyTile.value = random.nextDouble() < 0.9 ? 2 : 4;
         }
     }
 
@@ -99,7 +185,7 @@ public class Game2048Model {
         }
 
         //After all lines have been moved generate a new tile
-        if (moveMade) {
+        if (moveMade && spawnTiles) {
             addTile();
         }
 
@@ -0,0 +1,68 @@
+package AI2048;
+
+/**
+ * Engine that uses Game2048Model and AIController themselves. This is the reference that other engines are compared
+ * against.
+ */
+public class LegacyBoardEngine implements BoardEngine<Game2048Model> {
+
+    private final AIController ai = new AIController();
+
+    @Override
+    public String getName() {
+        return "legacy";
+    }
+
+    @Override
+    public Game2048Model load(int[] values, int score) {
+        return new Game2048Model(values, score);
+    }
+
+    @Override
+    public Game2048Model move(Game2048Model board, int direction) {
+        Game2048Model moved = new Game2048Model(board);
+        boolean moveMade;
+        switch (direction) {
+            case 0:
+                moveMade = moved.left();
+                break;
+            case 1:
+                moveMade = moved.right();
+                break;
+            case 2:
+                moveMade = moved.up();
+                break;
+            case 3:
+                moveMade = moved.down();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown direction: " + direction);
+        }
+        return moveMade ? moved : null;
+    }
+
+    @Override
+    public int[] getValues(Game2048Model board) {
+        Tile[] tiles = board.getTiles();
+        int[] values = new int[tiles.length];
+        for (int i = 0; i < tiles.length; i++) {
+            values[i] = tiles[i].value;
+        }
+        return values;
+    }
+
+    @Override
+    public int getScore(Game2048Model board) {
+        return board.getScore();
+    }
+
+    @Override
+    public boolean getWin(Game2048Model board) {
+        return board.getWin();
+    }
+
+    @Override
+    public double evaluate(Game2048Model board) {
+        return ai.evaluate(board);
+    }
+}
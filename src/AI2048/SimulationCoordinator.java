@@ -0,0 +1,449 @@
+package AI2048;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits a simulation of many AI games into shards of consecutive seeds and plays them across several worker
+ * processes. Each worker is a separate JVM running SimulationWorker that connects back to the coordinator over a
+ * socket. Because every game is seeded, the merged totals are the same as playing every seed in a single process.
+ *
+ * The job starts as soon as the first worker connects, and workers that connect later join in. Workers that fail to
+ * connect within 30 seconds, or go a minute without reporting progress on a shard, are left out and their shards are
+ * played by the others. A worker that is left out after connecting is destroyed straight away.
+ *
+ * When a checkpoint file is given, the totals of each finished shard are appended to it. Running the same job again
+ * with the same checkpoint only plays the shards that had not finished.
+ */
+public class SimulationCoordinator {
+
+    private static final int ACCEPT_TIMEOUT_MILLIS = 30000;
+    private static final int ACCEPT_POLL_MILLIS = 200;
+    //A worker that sends nothing for this long is treated as hung. Workers report progress well within it however
+    //large their shard is
+    private static final int REPLY_TIMEOUT_MILLIS = 12 * SimulationWorker.PROGRESS_INTERVAL_MILLIS;
+    private static final int EXIT_TIMEOUT_SECONDS = 5;
+
+    private final long firstSeed;
+    private final long games;
+    private final int shardSize;
+    private final File checkpoint;
+
+    private final LinkedBlockingQueue<Shard> pending = new LinkedBlockingQueue<Shard>();
+    private final SimulationStats totals = new SimulationStats();
+    private PrintWriter checkpointWriter;
+    private final List<WorkerHandler> handlers = new ArrayList<WorkerHandler>();
+    private final List<Process> processes = new ArrayList<Process>();
+    private volatile boolean stopping;
+    private int unfinished;
+    private int liveWorkers;
+
+    public SimulationCoordinator(long firstSeed, long games, int shardSize, File checkpoint) {
+        if (games < 0 || shardSize <= 0) {
+            throw new IllegalArgumentException("games must not be negative and shardSize must be positive");
+        }
+        this.firstSeed = firstSeed;
+        this.games = games;
+        this.shardSize = shardSize;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Plays every shard that is not already in the checkpoint, using the given number of worker processes
+     *
+     * @param workers   Number of worker processes to start
+     * @return          Totals for every game in the job
+     * @throws IOException  If the workers cannot be started, or they all exit before the job is finished
+     */
+    public SimulationStats run(int workers) throws IOException, InterruptedException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("At least one worker is needed");
+        }
+
+        List<Shard> shards = planShards();
+        Set<Integer> finished = readCheckpoint(shards);
+        for (Shard shard : shards) {
+            if (!finished.contains(shard.id)) {
+                pending.add(shard);
+            }
+        }
+        unfinished = pending.size();
+        if (unfinished == 0) {
+            return totals;
+        }
+
+        if (checkpoint != null) {
+            checkpointWriter = new PrintWriter(new OutputStreamWriter(new FileOutputStream(checkpoint, true), "UTF-8"));
+            //Starts a new line in case the last run stopped part way through writing one
+            checkpointWriter.println();
+            checkpointWriter.flush();
+        }
+
+        ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress());
+        try {
+            for (int i = 0; i < workers; i++) {
+                processes.add(startWorker(server.getLocalPort(), i));
+            }
+
+            acceptWorkers(server, workers);
+
+            synchronized (this) {
+                while (unfinished > 0 && liveWorkers > 0) {
+                    wait();
+                }
+            }
+        } finally {
+            server.close();
+            stopWorkers();
+            if (checkpointWriter != null) {
+                checkpointWriter.close();
+            }
+        }
+
+        if (unfinished > 0) {
+            throw new IOException("All workers exited with " + unfinished + " shards unfinished"
+                    + (checkpoint != null ? ", run again with the same checkpoint to resume" : ""));
+        }
+        return totals;
+    }
+
+    /**
+     * Accepts connections from the workers, starting a handler for each one as it connects. Waits for the first
+     * worker, then keeps accepting until every worker has connected, the job has finished or the timeout has passed,
+     * so that the job goes ahead with the workers that did connect.
+     *
+     * @param server    Socket the workers connect to
+     * @param workers   Number of workers that were started
+     * @throws IOException  If no worker connects within the timeout
+     */
+    private void acceptWorkers(ServerSocket server, int workers) throws IOException {
+        long deadline = System.currentTimeMillis() + ACCEPT_TIMEOUT_MILLIS;
+        server.setSoTimeout(ACCEPT_POLL_MILLIS);
+
+        int connected = 0;
+        while (connected < workers && !isFinished() && System.currentTimeMillis() < deadline) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketTimeoutException e) {
+                continue;
+            }
+            socket.setSoTimeout(REPLY_TIMEOUT_MILLIS);
+
+            WorkerHandler handler = new WorkerHandler(socket);
+            synchronized (this) {
+                liveWorkers++;
+                handlers.add(handler);
+            }
+            handler.start("2048-coordinator-" + connected++);
+        }
+
+        if (connected == 0) {
+            throw new IOException("No worker connected within " + ACCEPT_TIMEOUT_MILLIS + " ms");
+        }
+        if (connected < workers && !isFinished()) {
+            System.err.println("Only " + connected + " of " + workers + " workers connected, continuing without the rest");
+        }
+    }
+
+    /**
+     * Stops the handlers and then the worker processes. Every handler has finished before this returns, so no shard
+     * can be completed after the checkpoint has been closed. Workers that do not exit after being sent STOP, or that
+     * never connected, are destroyed.
+     */
+    private void stopWorkers() throws InterruptedException {
+        stopping = true;
+
+        List<WorkerHandler> started;
+        synchronized (this) {
+            started = new ArrayList<WorkerHandler>(handlers);
+        }
+        //Handlers only close their sockets themselves once the job is finished, otherwise they are closed here
+        if (!isFinished()) {
+            for (WorkerHandler handler : started) {
+                handler.close();
+            }
+        }
+        for (WorkerHandler handler : started) {
+            handler.join();
+        }
+
+        for (Process process : processes) {
+            if (!process.waitFor(EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroy();
+                process.waitFor();
+            }
+        }
+    }
+
+    /**
+     * Divides the seeds of the job into shards of consecutive seeds. The plan only depends on the job, so the same
+     * shard ids are produced when a job is resumed.
+     *
+     * @return  The shards of the job
+     */
+    private List<Shard> planShards() {
+        List<Shard> shards = new ArrayList<Shard>();
+        long lastSeed = firstSeed + games;
+        int id = 0;
+        for (long from = firstSeed; from < lastSeed; from += shardSize) {
+            shards.add(new Shard(id++, from, Math.min(from + shardSize, lastSeed)));
+        }
+        return shards;
+    }
+
+    /**
+     * Adds the totals of the shards recorded in the checkpoint, if there is one
+     *
+     * @param shards    The shards of the job
+     * @return          The ids of the shards that have already been played
+     * @throws IOException  If the checkpoint cannot be read, or it was written for a different job
+     */
+    private Set<Integer> readCheckpoint(List<Shard> shards) throws IOException {
+        Set<Integer> finished = new HashSet<Integer>();
+        if (checkpoint == null || !checkpoint.exists()) {
+            return finished;
+        }
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(checkpoint), "UTF-8"));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.trim().split(" ", 4);
+                //A line cut short by a crash is ignored, and that shard is played again
+                if (fields.length < 4) {
+                    continue;
+                }
+                int id = Integer.parseInt(fields[0]);
+                if (id >= shards.size() || shards.get(id).from != Long.parseLong(fields[1])
+                        || shards.get(id).to != Long.parseLong(fields[2])) {
+                    throw new IOException("Checkpoint " + checkpoint + " was written for a different job");
+                }
+
+                SimulationStats stats;
+                try {
+                    stats = SimulationStats.parse(fields[3]);
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (finished.add(id)) {
+                    totals.merge(stats);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return finished;
+    }
+
+    /**
+     * Starts a worker JVM with the same Java installation and class path as this one
+     *
+     * @param port    Port the worker should connect to
+     * @param number  Number the worker sends back in HELLO, its index in processes
+     * @return        The worker process
+     */
+    private Process startWorker(int port, int number) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                SimulationWorker.class.getName(), InetAddress.getLoopbackAddress().getHostAddress(),
+                String.valueOf(port), String.valueOf(number));
+        builder.inheritIO();
+        return builder.start();
+    }
+
+    /**
+     * Records the totals of a finished shard
+     */
+    private synchronized void complete(Shard shard, SimulationStats stats) {
+        totals.merge(stats);
+        if (checkpointWriter != null) {
+            checkpointWriter.println(shard.id + " " + shard.from + " " + shard.to + " " + stats.format());
+            checkpointWriter.flush();
+        }
+        unfinished--;
+        notifyAll();
+    }
+
+    private synchronized boolean isFinished() {
+        return unfinished == 0;
+    }
+
+    private synchronized void workerExited() {
+        liveWorkers--;
+        notifyAll();
+    }
+
+    /**
+     * A range of seeds, from inclusive and to exclusive, played by a single worker
+     */
+    private static final class Shard {
+        final int id;
+        final long from;
+        final long to;
+
+        Shard(int id, long from, long to) {
+            this.id = id;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Sends shards to one worker until every shard has finished. If the connection to the worker is lost, the shard
+     * it was playing is put back in the queue for another worker.
+     */
+    private final class WorkerHandler implements Runnable {
+        private final Socket socket;
+        private Thread thread;
+        //The worker's process, once it has said which one it is
+        private Process process;
+
+        WorkerHandler(Socket socket) {
+            this.socket = socket;
+        }
+
+        void start(String name) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void join() throws InterruptedException {
+            thread.join();
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //The worker is no longer used
+            }
+        }
+
+        @Override
+        public void run() {
+            Shard shard = null;
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+                PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+
+                String[] hello = readLine(in).split(" ");
+                if (hello.length != 2 || !hello[0].equals(SimulationWorker.HELLO)) {
+                    throw new IOException("Expected HELLO from worker: " + Arrays.toString(hello));
+                }
+                int number = Integer.parseInt(hello[1]);
+                if (number >= 0 && number < processes.size()) {
+                    process = processes.get(number);
+                }
+
+                while (!isFinished() && !stopping) {
+                    shard = pending.poll(100, TimeUnit.MILLISECONDS);
+                    if (shard == null) {
+                        continue;
+                    }
+
+                    out.println(SimulationWorker.SHARD + " " + shard.id + " " + shard.from + " " + shard.to);
+                    out.flush();
+
+                    //Each PROGRESS line resets the socket's read timeout, so only a silent worker times out
+                    String line;
+                    String[] fields;
+                    do {
+                        line = readLine(in);
+                        fields = line.split(" ", 3);
+                    } while (fields.length == 3 && fields[0].equals(SimulationWorker.PROGRESS)
+                            && Integer.parseInt(fields[1]) == shard.id);
+
+                    if (fields.length != 3 || !fields[0].equals(SimulationWorker.RESULT)
+                            || Integer.parseInt(fields[1]) != shard.id) {
+                        throw new IOException("Unexpected reply from worker: " + line);
+                    }
+
+                    complete(shard, SimulationStats.parse(fields[2]));
+                    shard = null;
+                }
+
+                out.println(SimulationWorker.STOP);
+                out.flush();
+            } catch (IOException e) {
+                if (!stopping) {
+                    System.err.println("Lost worker: " + e.getMessage());
+                    giveUp();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Lost worker: " + e);
+                giveUp();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (shard != null) {
+                    pending.add(shard);
+                }
+                close();
+                workerExited();
+            }
+        }
+
+        private String readLine(BufferedReader in) throws IOException {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("Worker closed the connection");
+            }
+            return line.trim();
+        }
+
+        /**
+         * Destroys the process of a worker that is no longer used, so that a hung or misbehaving worker does not keep
+         * running until the end of the job
+         */
+        private void giveUp() {
+            if (process != null) {
+                process.destroy();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: SimulationCoordinator <games> <workers> [shard size] [checkpoint file] [first seed]");
+            System.err.println("       A worker count of 0 plays every game in this process");
+            System.exit(1);
+        }
+
+        long games = Long.parseLong(args[0]);
+        int workers = Integer.parseInt(args[1]);
+        int shardSize = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        File checkpoint = args.length > 3 ? new File(args[3]) : null;
+        long firstSeed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        long start = System.nanoTime();
+        SimulationStats stats;
+        if (workers == 0) {
+            stats = SimulationStats.play(firstSeed, firstSeed + games);
+        } else {
+            stats = new SimulationCoordinator(firstSeed, games, shardSize, checkpoint).run(workers);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.println(stats);
+        System.out.println("Time: " + elapsed + " ms");
+    }
+}
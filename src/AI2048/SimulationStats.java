@@ -0,0 +1,171 @@
+package AI2048;
+
+/**
+ * Totals for a set of games played by the AI. Totals from different sets of games can be merged, and because only
+ * sums, maximums and counts are kept the result does not depend on the order the sets were merged in.
+ */
+public class SimulationStats {
+
+    //Index n counts the games whose highest tile was 2^n
+    private static final int TILE_COUNTS = 18;
+
+    private long games = 0;
+    private long wins = 0;
+    private long moves = 0;
+    private long totalScore = 0;
+    private int bestScore = 0;
+    private final long[] highestTiles = new long[TILE_COUNTS];
+
+    /**
+     * Plays a game with each seed in a range and totals the results
+     *
+     * @param fromSeed  First seed, inclusive
+     * @param toSeed    Last seed, exclusive
+     * @return          Totals for the games played
+     */
+    public static SimulationStats play(long fromSeed, long toSeed) {
+        SimulationStats stats = new SimulationStats();
+        AIController ai = new AIController();
+
+        for (long seed = fromSeed; seed < toSeed; seed++) {
+            Game2048Model game = new Game2048Model(seed);
+            int moveCount = 0;
+            while (!game.getWin() && !game.getLose()) {
+                game = ai.makeMove(game);
+                moveCount++;
+            }
+            stats.addGame(game, moveCount);
+        }
+        return stats;
+    }
+
+    /**
+     * Adds a finished game to the totals
+     *
+     * @param game      The finished game
+     * @param moveCount Number of moves made during the game
+     */
+    public void addGame(Game2048Model game, int moveCount) {
+        games++;
+        moves += moveCount;
+        totalScore += game.getScore();
+        bestScore = Math.max(bestScore, game.getScore());
+        if (game.getWin()) {
+            wins++;
+        }
+
+        int highest = 0;
+        for (Tile tile : game.getTiles()) {
+            highest = Math.max(highest, tile.value);
+        }
+        highestTiles[Integer.numberOfTrailingZeros(Math.max(highest, 1))]++;
+    }
+
+    /**
+     * Adds the totals from another set of games to these totals
+     *
+     * @param other Totals to be added
+     */
+    public void merge(SimulationStats other) {
+        games += other.games;
+        wins += other.wins;
+        moves += other.moves;
+        totalScore += other.totalScore;
+        bestScore = Math.max(bestScore, other.bestScore);
+        for (int i = 0; i < TILE_COUNTS; i++) {
+            highestTiles[i] += other.highestTiles[i];
+        }
+    }
+
+    /**
+     * Writes the totals as a single line of space separated values, as read by parse
+     *
+     * @return  The totals as text
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(games).append(' ').append(wins).append(' ').append(moves).append(' ')
+                .append(totalScore).append(' ').append(bestScore);
+        for (long count : highestTiles) {
+            sb.append(' ').append(count);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads totals written by format
+     *
+     * @param line  The totals as text
+     * @return      The totals
+     */
+    public static SimulationStats parse(String line) {
+        String[] fields = line.trim().split(" ");
+        if (fields.length != 5 + TILE_COUNTS) {
+            throw new IllegalArgumentException("Malformed simulation stats: " + line);
+        }
+
+        SimulationStats stats = new SimulationStats();
+        stats.games = Long.parseLong(fields[0]);
+        stats.wins = Long.parseLong(fields[1]);
+        stats.moves = Long.parseLong(fields[2]);
+        stats.totalScore = Long.parseLong(fields[3]);
+        stats.bestScore = Integer.parseInt(fields[4]);
+        for (int i = 0; i < TILE_COUNTS; i++) {
+            stats.highestTiles[i] = Long.parseLong(fields[5 + i]);
+        }
+        return stats;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getTotalScore() {
+        return totalScore;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SimulationStats)) {
+            return false;
+        }
+        return format().equals(((SimulationStats) o).format());
+    }
+
+    @Override
+    public int hashCode() {
+        return format().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Games: ").append(games).append('\n');
+        sb.append("Won: ").append(wins);
+        if (games > 0) {
+            sb.append(String.format(" (%.2f%%)", 100.0 * wins / games)).append('\n');
+            sb.append(String.format("Average score: %.2f", (double) totalScore / games)).append('\n');
+            sb.append(String.format("Average moves: %.2f", (double) moves / games));
+        }
+        sb.append('\n').append("Best score: ").append(bestScore).append('\n');
+        sb.append("Highest tile:");
+        for (int i = 0; i < TILE_COUNTS; i++) {
+            if (highestTiles[i] > 0) {
+                sb.append(' ').append(1 << i).append('=').append(highestTiles[i]);
+            }
+        }
+        return sb.toString();
+    }
+}
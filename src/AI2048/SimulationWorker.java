@@ -0,0 +1,111 @@
+package AI2048;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+
+/**
+ * Plays shards of a simulation for a SimulationCoordinator. The worker connects to the coordinator and then plays
+ * each shard it is sent, replying with the totals for that shard, until it is told to stop.
+ *
+ * The protocol is one command per line:
+ * <pre>
+ *     coordinator to worker:   SHARD &lt;id&gt; &lt;first seed&gt; &lt;last seed, exclusive&gt;
+ *                              STOP
+ *     worker to coordinator:   HELLO &lt;worker number&gt;
+ *                              PROGRESS &lt;id&gt; &lt;games played&gt;
+ *                              RESULT &lt;id&gt; &lt;SimulationStats.format()&gt;
+ * </pre>
+ *
+ * HELLO is sent once on connecting, with the number the coordinator gave the worker when starting it, or -1 for a
+ * worker started by hand. PROGRESS is sent every few seconds while a shard is played, so the coordinator can tell a
+ * busy worker from a hung one however large the shard is.
+ */
+public class SimulationWorker {
+
+    static final String SHARD = "SHARD";
+    static final String RESULT = "RESULT";
+    static final String STOP = "STOP";
+    static final String HELLO = "HELLO";
+    static final String PROGRESS = "PROGRESS";
+    static final int PROGRESS_INTERVAL_MILLIS = 5000;
+
+    private final String host;
+    private final int port;
+    private final int number;
+
+    public SimulationWorker(String host, int port, int number) {
+        this.host = host;
+        this.port = port;
+        this.number = number;
+    }
+
+    /**
+     * Connects to the coordinator and plays shards until the coordinator sends STOP or closes the connection
+     *
+     * @throws IOException  If the connection fails or a malformed command is received
+     */
+    public void run() throws IOException {
+        Socket socket = new Socket(host, port);
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+            out.println(HELLO + " " + number);
+            out.flush();
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] command = line.trim().split(" ");
+                if (command[0].equals(STOP)) {
+                    break;
+                } else if (command[0].equals(SHARD) && command.length == 4) {
+                    int id = Integer.parseInt(command[1]);
+                    SimulationStats stats = playShard(id, Long.parseLong(command[2]), Long.parseLong(command[3]), out);
+                    out.println(RESULT + " " + id + " " + stats.format());
+                    out.flush();
+                } else {
+                    throw new IOException("Unknown command from coordinator: " + line);
+                }
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Plays a shard one game at a time, sending PROGRESS to the coordinator whenever the interval has passed
+     *
+     * @param id        Id of the shard
+     * @param fromSeed  First seed, inclusive
+     * @param toSeed    Last seed, exclusive
+     * @param out       Connection to the coordinator
+     * @return          Totals for the shard
+     */
+    private static SimulationStats playShard(int id, long fromSeed, long toSeed, PrintWriter out) {
+        SimulationStats stats = new SimulationStats();
+        long lastProgress = System.currentTimeMillis();
+        for (long seed = fromSeed; seed < toSeed; seed++) {
+            stats.merge(SimulationStats.play(seed, seed + 1));
+
+            long now = System.currentTimeMillis();
+            if (now - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                out.println(PROGRESS + " " + id + " " + (seed + 1 - fromSeed));
+                out.flush();
+                lastProgress = now;
+            }
+        }
+        return stats;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Usage: SimulationWorker <coordinator host> <coordinator port> [worker number]");
+            System.exit(1);
+        }
+        int number = args.length > 2 ? Integer.parseInt(args[2]) : -1;
+        new SimulationWorker(args[0], Integer.parseInt(args[1]), number).run();
+    }
+}